@@ -0,0 +1,276 @@
+package com.parasoft.report.transformer;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import picocli.CommandLine;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.*;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.text.MessageFormat;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Converts scaled-up copies of the reports used by XMLToSarifTest and checks time, allocation and peak heap
+ * of each conversion against the budget in <i>budget.properties</i>. Run with <code>gradlew perfTest</code>.
+ */
+public class XMLToSarifPerfTest {
+
+    private static final String TEST_RESOURCES_LOC = "src/test/resources/com/parasoft/report/transformer/XMLToSarifTest/xml";
+
+    private static final String BUDGET_RESOURCE_PATH = "XMLToSarifPerfTest/budget.properties";
+
+    private static final File WORK_DIR = new File(System.getProperty("perfTest.workDir", "build/perfTest"));
+
+    // Replicated <Loc> nodes get locRef + copy * LOC_REF_STRIDE, which is far above any locRef in the sample reports
+    private static final long LOC_REF_STRIDE = 1_000_000L;
+
+    private static final long MB = 1024L * 1024L;
+
+    private static final Properties budget = new Properties();
+
+    private static final Properties results = new Properties();
+
+    @BeforeAll
+    public static void setUp() throws IOException {
+        try (InputStream budgetStream = XMLToSarifPerfTest.class.getResourceAsStream(BUDGET_RESOURCE_PATH)) {
+            if (budgetStream == null) {
+                throw new FileNotFoundException(MessageFormat.format("Performance budget not found: {0}", BUDGET_RESOURCE_PATH));
+            }
+            budget.load(budgetStream);
+        }
+        if (!WORK_DIR.isDirectory() && !WORK_DIR.mkdirs()) {
+            throw new IOException(MessageFormat.format("Cannot create performance test directory: {0}", WORK_DIR.getAbsolutePath()));
+        }
+
+        // Warm up so that stylesheet class loading and JIT are not charged to the first measured report
+        File warmUpSarifFile = new File(WORK_DIR, "warm-up.sarif");
+        assertEquals(0, convert(new File(TEST_RESOURCES_LOC, "jtest-report-202401.xml"), warmUpSarifFile, "D:/JavaProjectTemplate/"));
+        warmUpSarifFile.delete();
+    }
+
+    @Test
+    public void testXMLToSarifPerf_jtest202401() throws Exception {
+        this.testXMLToSarifPerf("jtest-report-202401", "D:/JavaProjectTemplate/");
+    }
+
+    @Test
+    public void testXMLToSarifPerf_jtest20230201_multipleProjects() throws Exception {
+        this.testXMLToSarifPerf("jtest_report-20230201-multiple_projects",
+                "D:/test/soavirt-someip_2; E:/Parasoft/testMultipleProjects/jtest/javaprojecttemplate");
+    }
+
+    @Test
+    public void testXMLToSarifPerf_dottest202401() throws Exception {
+        this.testXMLToSarifPerf("dottest-report-202401", "D:/reports/projects/bankexample.net/Parasoft.Dottest.Examples.Bank/");
+    }
+
+    @Test
+    public void testXMLToSarifPerf_cpptest_pro202401() throws Exception {
+        this.testXMLToSarifPerf("cpptest-pro-report-202401", "D:\\reports\\projects\\flowanalysiscpp\\");
+    }
+
+    @Test
+    public void testXMLToSarifPerf_cpptest_pro202302_multipleProjects() throws Exception {
+        this.testXMLToSarifPerf("cpptest-pro_report-202302-multiple_projects",
+                "E:/Parasoft/testMultipleProjects/cppPro/flowanalysiscpp_2; D:/test/flowanalysiscpp");
+    }
+
+    @Test
+    public void testXMLToSarifPerf_cpptest_pro202401_additionalReport() throws Exception {
+        this.testXMLToSarifPerf("cpptest-pro-report-202401-additional-report", "D:\\reports\\projects\\flowanalysiscpp%20(1)");
+    }
+
+    @Test
+    public void testXMLToSarifPerf_cpptest_pro202401_additionalWithFilterReport_1() throws Exception {
+        this.testXMLToSarifPerf("cpptest-pro-report-202401-additional-with-filter-report-1", "/mnt/d/bitbucket/flowanalysiscpp/");
+    }
+
+    @Test
+    public void testXMLToSarifPerf_cpptest_pro202401_additionalWithFilterReport_2() throws Exception {
+        this.testXMLToSarifPerf("cpptest-pro-report-202401-additional-with-filter-report-2", "/mnt/d/bitbucket/flowanalysiscpp/");
+    }
+
+    private void testXMLToSarifPerf(String reportName, String projectRootPaths) throws Exception {
+        int copies = Integer.parseInt(getBudget(reportName, "copies"));
+        long maxTimeMillis = Long.parseLong(getBudget(reportName, "maxTimeMillis"));
+        long maxAllocatedMB = Long.parseLong(getBudget(reportName, "maxAllocatedMB"));
+        long maxPeakHeapMB = Long.parseLong(getBudget(reportName, "maxPeakHeapMB"));
+
+        File scaledXmlFile = new File(WORK_DIR, reportName + "-x" + copies + ".xml");
+        File outputSarifFile = new File(WORK_DIR, reportName + "-x" + copies + ".sarif");
+        try {
+            scaleReport(new File(TEST_RESOURCES_LOC, reportName + ".xml"), scaledXmlFile, copies);
+
+            com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            long threadId = Thread.currentThread().getId();
+            System.gc();
+            resetPeakHeapUsage();
+            long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+            long startTime = System.nanoTime();
+
+            int exitCode = convert(scaledXmlFile, outputSarifFile, projectRootPaths);
+
+            long timeMillis = (System.nanoTime() - startTime) / 1_000_000L;
+            long allocatedMB = (threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore) / MB;
+            long peakHeapMB = getPeakHeapUsage() / MB;
+
+            recordResult(reportName, copies, scaledXmlFile.length(), timeMillis, allocatedMB, peakHeapMB);
+
+            assertEquals(0, exitCode);
+            assertTrue(outputSarifFile.exists());
+            assertAll(
+                    () -> assertTrue(timeMillis <= maxTimeMillis, MessageFormat.format("{0}: conversion took {1} ms, budget is {2} ms.", reportName, timeMillis, maxTimeMillis)),
+                    () -> assertTrue(allocatedMB <= maxAllocatedMB, MessageFormat.format("{0}: conversion allocated {1} MB, budget is {2} MB.", reportName, allocatedMB, maxAllocatedMB)),
+                    () -> assertTrue(peakHeapMB <= maxPeakHeapMB, MessageFormat.format("{0}: peak heap usage was {1} MB, budget is {2} MB.", reportName, peakHeapMB, maxPeakHeapMB)));
+        } finally {
+            scaledXmlFile.delete();
+            outputSarifFile.delete();
+        }
+    }
+
+    private static int convert(File inputXmlFile, File outputSarifFile, String projectRootPaths) {
+        CommandLine command = new CommandLine(new XMLToSarif());
+        String[] args = {"--inputXmlReport", inputXmlFile.getPath(),
+                         "--outputSarifReport", outputSarifFile.getPath(),
+                         "--projectRootPaths", projectRootPaths};
+        return command.execute(args);
+    }
+
+    private static String getBudget(String reportName, String key) {
+        String value = budget.getProperty(reportName + "." + key);
+        if (value == null) {
+            throw new IllegalStateException(MessageFormat.format("Missing performance budget: {0}.{1}", reportName, key));
+        }
+        return value.trim();
+    }
+
+    private static synchronized void recordResult(String reportName, int copies, long xmlSize, long timeMillis, long allocatedMB, long peakHeapMB) throws IOException {
+        System.out.println(MessageFormat.format("{0} x{1} ({2} MB): {3} ms, {4} MB allocated, {5} MB peak heap",
+                reportName, copies, xmlSize / MB, timeMillis, allocatedMB, peakHeapMB));
+        results.setProperty(reportName + ".copies", String.valueOf(copies));
+        results.setProperty(reportName + ".timeMillis", String.valueOf(timeMillis));
+        results.setProperty(reportName + ".allocatedMB", String.valueOf(allocatedMB));
+        results.setProperty(reportName + ".peakHeapMB", String.valueOf(peakHeapMB));
+        try (OutputStream resultsStream = new FileOutputStream(new File(WORK_DIR, "results.properties"))) {
+            results.store(resultsStream, "XMLToSarifPerfTest results, compare with " + BUDGET_RESOURCE_PATH);
+        }
+    }
+
+    private static void resetPeakHeapUsage() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    private static long getPeakHeapUsage() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    /**
+     * Streams the report to <code>output</code>, writing every &lt;Loc&gt; and every violation in &lt;StdViols&gt;
+     * <code>copies</code> times. Each copy after the first points to a new file in a <i>copyN</i> folder next to
+     * the original one, so the scaled report has <code>copies</code> times more checked files as well as violations.
+     */
+    private static void scaleReport(File input, File output, int copies) throws IOException, XMLStreamException {
+        XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+        XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+        XMLEventFactory eventFactory = XMLEventFactory.newInstance();
+
+        try (InputStream in = new BufferedInputStream(new FileInputStream(input));
+             OutputStream out = new BufferedOutputStream(new FileOutputStream(output))) {
+            XMLEventReader reader = inputFactory.createXMLEventReader(in);
+            XMLEventWriter writer = outputFactory.createXMLEventWriter(out, StandardCharsets.UTF_8.name());
+            Deque<String> parents = new ArrayDeque<>();
+            while (reader.hasNext()) {
+                XMLEvent event = reader.nextEvent();
+                if (event.isStartElement()) {
+                    String name = event.asStartElement().getName().getLocalPart();
+                    String parent = parents.peek();
+                    if (("Loc".equals(name) && "Locations".equals(parent)) || "StdViols".equals(parent)) {
+                        List<XMLEvent> element = readElement(event, reader);
+                        for (int copy = 0; copy < copies; copy++) {
+                            for (XMLEvent elementEvent : element) {
+                                writer.add(copy > 0 && elementEvent.isStartElement() ? copyStartElement(elementEvent.asStartElement(), copy, eventFactory) : elementEvent);
+                            }
+                        }
+                        continue;
+                    }
+                    parents.push(name);
+                } else if (event.isEndElement()) {
+                    parents.pop();
+                }
+                writer.add(event);
+            }
+            writer.flush();
+            writer.close();
+            reader.close();
+        }
+    }
+
+    private static List<XMLEvent> readElement(XMLEvent startEvent, XMLEventReader reader) throws XMLStreamException {
+        List<XMLEvent> events = new ArrayList<>();
+        events.add(startEvent);
+        int depth = 1;
+        while (depth > 0) {
+            XMLEvent event = reader.nextEvent();
+            if (event.isStartElement()) {
+                depth++;
+            } else if (event.isEndElement()) {
+                depth--;
+            }
+            events.add(event);
+        }
+        return events;
+    }
+
+    private static StartElement copyStartElement(StartElement element, int copy, XMLEventFactory eventFactory) {
+        List<Attribute> attributes = new ArrayList<>();
+        Iterator<Attribute> iterator = element.getAttributes();
+        while (iterator.hasNext()) {
+            Attribute attribute = iterator.next();
+            String value = attribute.getValue();
+            switch (attribute.getName().getLocalPart()) {
+                case "locRef":
+                    value = String.valueOf(Long.parseLong(value) + copy * LOC_REF_STRIDE);
+                    break;
+                case "uri":
+                case "fsPath":
+                case "loc":
+                case "resProjPath":
+                case "locFile":
+                case "srcRngFile":
+                    value = copyPath(value, copy);
+                    break;
+                default:
+                    break;
+            }
+            attributes.add(eventFactory.createAttribute(attribute.getName(), value));
+        }
+        QName name = element.getName();
+        return eventFactory.createStartElement(name.getPrefix(), name.getNamespaceURI(), name.getLocalPart(), attributes.iterator(), element.getNamespaces());
+    }
+
+    private static String copyPath(String path, int copy) {
+        int separatorIndex = Math.max(path.lastIndexOf('/'), path.lastIndexOf('\\'));
+        String separator = separatorIndex < 0 ? "/" : String.valueOf(path.charAt(separatorIndex));
+        return path.substring(0, separatorIndex + 1) + "copy" + copy + separator + path.substring(separatorIndex + 1);
+    }
+}